@@ -4,6 +4,13 @@ import java.io.UnsupportedEncodingException;
 
 /**
  * Handles the encoding of the HTTP authentication credentials.
+ * </p>
+ * Implementations are shared by all requests made through a {@link RestClient}, and should
+ * therefore be thread-safe and return their token without blocking.
+ * </p>
+ * A {@link RestClient} reads the token of its credentials only once, when it is created, and
+ * sends that same token with every request. Credentials whose token changes over time must
+ * extend {@link RefreshableAuthCredentials}, whose current token is read on every request.
  *
  * @author Duncan Attard
  */
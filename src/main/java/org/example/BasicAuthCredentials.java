@@ -1,10 +1,13 @@
 package org.example;
 
-import javax.xml.bind.DatatypeConverter;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 /**
  * Handles the encoding of HTTP BASIC authentication credentials.
+ * </p>
+ * The authentication token is encoded once upon creation, making instances immutable and
+ * safe to share between threads.
  *
  * @author Duncan Attard
  */
@@ -13,12 +16,17 @@ public final class BasicAuthCredentials implements AuthCredentials {
     /**
      * The authentication user name.
      */
-    private String username;
+    private final String username;
 
     /**
      * The authentication password.
      */
-    private String password;
+    private final String password;
+
+    /**
+     * The precomputed BASIC authentication token.
+     */
+    private final String authToken;
 
     /**
      * Creates and initializes the {@link BasicAuthCredentials} with the specified credentials.
@@ -39,19 +47,20 @@ public final class BasicAuthCredentials implements AuthCredentials {
         // Initialize.
         this.username = username;
         this.password = password;
+
+        // Prepare credentials for Base64 encoding to use for BASIC authentication.
+        String credentials = username + ":" + password;
+
+        // Compute the BASIC authentication token.
+        this.authToken = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public String getAuthToken() throws UnsupportedEncodingException {
-
-        // Prepare credentials for Base64 encoding to use for BASIC authentication.
-        String credentials = username + ":" + password;
-
-        // Compute the BASIC authentication token.
-        return "Basic " + DatatypeConverter.printBase64Binary(credentials.getBytes("UTF-8"));
+    public String getAuthToken() {
+        return authToken;
     }
 
     /**
@@ -0,0 +1,64 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * Handles HTTP bearer authentication credentials, such as OAuth access tokens, which are
+ * periodically obtained from the specified token source.
+ *
+ * @author Duncan Attard
+ */
+public final class BearerAuthCredentials extends RefreshableAuthCredentials {
+
+    /**
+     * The source supplying new raw access tokens.
+     */
+    private final Callable<String> tokenSource;
+
+    /**
+     * Creates and initializes the {@link BearerAuthCredentials} with the specified token source.
+     * </p>
+     * {@link #start()} must be invoked before the credentials can be used.
+     *
+     * @param tokenSource
+     *         The source supplying new raw access tokens.
+     * @param refreshIntervalMs
+     *         The interval between successive token refreshes in milliseconds.
+     */
+    public BearerAuthCredentials(Callable<String> tokenSource, long refreshIntervalMs) {
+        super(refreshIntervalMs);
+
+        if (tokenSource == null) {
+            throw new IllegalArgumentException("Token source cannot be null");
+        }
+
+        // Initialize.
+        this.tokenSource = tokenSource;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String fetchAuthToken() throws IOException {
+
+        String token;
+
+        try {
+            token = tokenSource.call();
+        }
+        catch (IOException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new IOException("Unable to obtain access token", ex);
+        }
+
+        if (token == null || token.isEmpty()) {
+            throw new IOException("Access token cannot be empty");
+        }
+
+        return "Bearer " + token;
+    }
+}
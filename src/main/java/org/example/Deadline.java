@@ -0,0 +1,172 @@
+package org.example;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An absolute point in time by which a call should complete.
+ * </p>
+ * Connection setup, writing the request and reading the response are bounded by the deadline,
+ * and the connection is aborted should it expire while blocked on the socket. Decoding the
+ * response cannot be interrupted: the deadline is only checked before and after it, so a call
+ * may overrun its deadline by the time taken to decode, after which it still fails with a
+ * {@link DeadlineExceededException}.
+ * </p>
+ * A deadline can be passed explicitly, or inherited from the caller context by attaching it to
+ * the current thread using {@link #attach()}, so that all calls made within the returned
+ * {@link Scope} share the same deadline:
+ * <pre>
+ * try (Deadline.Scope scope = Deadline.after(200).attach()) {
+ *     client.read(...);
+ * }
+ * </pre>
+ *
+ * @author Duncan Attard
+ */
+public final class Deadline {
+
+    /**
+     * The deadline attached to the current thread, if any.
+     */
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The longest supported timeout in nanoseconds (roughly 146 years). Longer timeouts are
+     * capped, so that differences between nano times never overflow.
+     */
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 2;
+
+    /**
+     * The deadline expressed in terms of {@link System#nanoTime()}.
+     */
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a new deadline expiring after the specified number of milliseconds from now.
+     *
+     * @param timeoutMs
+     *         The number of milliseconds after which the deadline expires.
+     *
+     * @return The new deadline.
+     */
+    public static Deadline after(long timeoutMs) {
+
+        if (timeoutMs < 0) {
+            throw new IllegalArgumentException("Timeout cannot be negative");
+        }
+
+        long timeoutNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(timeoutMs), MAX_TIMEOUT_NANOS);
+
+        return new Deadline(System.nanoTime() + timeoutNanos);
+    }
+
+    /**
+     * Returns the deadline attached to the current thread.
+     *
+     * @return The current deadline, or {@code null} if none is attached.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the earlier of the two specified deadlines, either of which may be {@code null}.
+     *
+     * @param first
+     *         The first deadline.
+     * @param second
+     *         The second deadline.
+     *
+     * @return The earlier deadline, or {@code null} if both are {@code null}.
+     */
+    public static Deadline earliest(Deadline first, Deadline second) {
+
+        if (first == null) {
+            return second;
+        }
+
+        if (second == null) {
+            return first;
+        }
+
+        // Compare differences rather than values, as nano times may overflow.
+        return first.deadlineNanos - second.deadlineNanos <= 0 ? first : second;
+    }
+
+    /**
+     * Returns the number of milliseconds remaining before this deadline expires, rounded up.
+     *
+     * @return The remaining milliseconds, or {@code 0} if the deadline has expired.
+     */
+    public long remainingMs() {
+
+        long remainingNanos = deadlineNanos - System.nanoTime();
+
+        if (remainingNanos <= 0) {
+            return 0;
+        }
+
+        // Round up without adding to remainingNanos, which could overflow.
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos - 1) + 1;
+    }
+
+    /**
+     * Returns the number of nanoseconds remaining before this deadline expires.
+     *
+     * @return The remaining nanoseconds, which are zero or negative if the deadline has expired.
+     */
+    long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * Returns whether this deadline has expired.
+     *
+     * @return {@code true} if the deadline has expired, {@code false} otherwise.
+     */
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Attaches this deadline to the current thread until the returned scope is closed.
+     *
+     * @return The scope which restores the previously attached deadline when closed.
+     */
+    public Scope attach() {
+
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(this);
+
+        return scope;
+    }
+
+    /**
+     * Restores the previously attached deadline when closed.
+     */
+    public static final class Scope implements Closeable {
+
+        /**
+         * The deadline attached before this scope was entered.
+         */
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            }
+            else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Signals that a call did not complete before its {@link Deadline} expired.
+ *
+ * @author Duncan Attard
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates and initializes a new instance of the {@link DeadlineExceededException} class with
+     * the specified detail message.
+     *
+     * @param message
+     *         The detail message.
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
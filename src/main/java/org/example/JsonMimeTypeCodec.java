@@ -1,23 +1,122 @@
 package org.example;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An implementation for encoding and decoding JSON HTTP messages.
+ * </p>
+ * An {@link ObjectReader} and {@link ObjectWriter} is created and cached for every type
+ * encountered, so that the serializers and deserializers of that type are only looked up
+ * once. Frequently used types can be registered upfront using {@link #register(Class[])} and
+ * {@link #register(TypeReference)}, so that the first request does not bear this cost.
+ * </p>
+ * Registered types are always cached. Other types are cached until each cache holds
+ * {@value #DEFAULT_MAX_CACHED_TYPES} entries; beyond that, readers and writers are created on
+ * every call. This keeps an application encoding many distinct runtime classes, such as
+ * anonymous or proxy classes, from growing the caches without bound and pinning those classes.
  *
  * @author Duncan Attard
  */
 public class JsonMimeTypeCodec extends MimeTypeCodec {
 
+    /**
+     * The default maximum number of unregistered types cached for reading, and for writing.
+     */
+    public static final int DEFAULT_MAX_CACHED_TYPES = 256;
+
     /**
      * The object mapper encoding and decoding JSON objects.
      */
-    public ObjectMapper mapper;
+    private final ObjectMapper mapper;
+
+    /**
+     * The maximum number of unregistered types cached for reading, and for writing.
+     */
+    private final int maxCachedTypes;
+
+    /**
+     * The cached readers, keyed by the type to decode.
+     */
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * The cached writers, keyed by the class of the objects to encode.
+     */
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
 
     public JsonMimeTypeCodec() {
-        this.mapper = new ObjectMapper();
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Creates and initializes a new instance of the {@link JsonMimeTypeCodec} class using the
+     * specified object mapper. The mapper must be fully configured beforehand, since readers
+     * and writers created from it are cached.
+     *
+     * @param mapper
+     *         The object mapper encoding and decoding JSON objects.
+     */
+    public JsonMimeTypeCodec(ObjectMapper mapper) {
+        this(mapper, DEFAULT_MAX_CACHED_TYPES);
+    }
+
+    /**
+     * Creates and initializes a new instance of the {@link JsonMimeTypeCodec} class using the
+     * specified object mapper, caching at most the specified number of unregistered types.
+     *
+     * @param mapper
+     *         The object mapper encoding and decoding JSON objects.
+     * @param maxCachedTypes
+     *         The maximum number of unregistered types cached for reading, and for writing.
+     */
+    JsonMimeTypeCodec(ObjectMapper mapper, int maxCachedTypes) {
+
+        if (mapper == null) {
+            throw new IllegalArgumentException("Mapper cannot be null");
+        }
+
+        this.mapper = mapper;
+        this.maxCachedTypes = maxCachedTypes;
+    }
+
+    /**
+     * Creates the reader and writer of each of the specified types ahead of their first use.
+     *
+     * @param types
+     *         The types to register.
+     *
+     * @return This codec, for convenience.
+     */
+    public JsonMimeTypeCodec register(Class<?>... types) {
+
+        for (Class<?> type : types) {
+            getReader(type, true);
+            getWriter(type, true);
+        }
+
+        return this;
+    }
+
+    /**
+     * Creates the reader of the specified generic type ahead of its first use.
+     *
+     * @param type
+     *         The generic type to register.
+     *
+     * @return This codec, for convenience.
+     */
+    public JsonMimeTypeCodec register(TypeReference<?> type) {
+        getReader(type.getType(), true);
+        return this;
     }
 
     /**
@@ -34,7 +133,7 @@ public class JsonMimeTypeCodec extends MimeTypeCodec {
      */
     @Override
     public byte[] doEncode(Object object) throws IOException {
-        return mapper.writeValueAsBytes(object);
+        return getWriter(object.getClass(), false).writeValueAsBytes(object);
     }
 
     /**
@@ -55,7 +154,126 @@ public class JsonMimeTypeCodec extends MimeTypeCodec {
      */
     @Override
     public <T> T doDecode(byte[] bytes, Class<T> type) throws IOException {
-        return mapper.readValue(bytes, type);
+        return getReader(type, false).readValue(bytes);
+    }
+
+    /**
+     * Decodes the specified JSON in a byte array and converts the result to the generic type
+     * specified by {@code type}.
+     *
+     * @param bytes
+     *         The array of bytes to decode.
+     * @param type
+     *         The generic type to which the array of bytes is to be decoded, which may also be
+     *         a Jackson {@link JavaType}.
+     * @param <T>
+     *         The type parameter T.
+     *
+     * @return A new decoded object of type {@code type}.
+     *
+     * @throws IOException
+     *         An error occurred while decoding {@code bytes} from JSON.
+     */
+    @Override
+    public <T> T doDecode(byte[] bytes, Type type) throws IOException {
+        return getReader(type, false).readValue(bytes);
+    }
+
+    /**
+     * Returns the cached reader of the specified type, creating it if necessary.
+     *
+     * @param type
+     *         The type to decode, which may also be a Jackson {@link JavaType}.
+     * @param registered
+     *         Whether the type is being registered, and must be cached regardless of the limit.
+     *
+     * @return The reader of {@code type}.
+     */
+    private ObjectReader getReader(Type type, boolean registered) {
+
+        ObjectReader reader = readers.get(type);
+
+        if (reader == null) {
+
+            // Jackson returns JavaTypes as they are.
+            reader = cache(readers, type, mapper.reader(mapper.getTypeFactory().constructType(type)), registered);
+        }
+
+        return reader;
+    }
+
+    /**
+     * Returns the cached writer of the specified class, creating it if necessary.
+     *
+     * @param type
+     *         The class of the objects to encode.
+     * @param registered
+     *         Whether the class is being registered, and must be cached regardless of the limit.
+     *
+     * @return The writer of {@code type}.
+     */
+    private ObjectWriter getWriter(Class<?> type, boolean registered) {
+
+        ObjectWriter writer = writers.get(type);
+
+        if (writer == null) {
+            writer = cache(writers, type, mapper.writerWithType(type), registered);
+        }
+
+        return writer;
+    }
+
+    /**
+     * Returns whether a reader is cached for the specified type. This is a test hook, and is not
+     * meant to be used otherwise.
+     *
+     * @param type
+     *         The type to decode.
+     *
+     * @return {@code true} if a reader is cached, {@code false} otherwise.
+     */
+    boolean hasReader(Type type) {
+        return readers.containsKey(type);
+    }
+
+    /**
+     * Returns whether a writer is cached for the specified class. This is a test hook, and is
+     * not meant to be used otherwise.
+     *
+     * @param type
+     *         The class of the objects to encode.
+     *
+     * @return {@code true} if a writer is cached, {@code false} otherwise.
+     */
+    boolean hasWriter(Class<?> type) {
+        return writers.containsKey(type);
+    }
+
+    /**
+     * Caches the specified value unless another thread has already done so, and returns the
+     * cached value. Unregistered values are not cached once the cache is full.
+     *
+     * @param cache
+     *         The cache in which to store the value.
+     * @param key
+     *         The key of the value.
+     * @param value
+     *         The value to cache.
+     * @param registered
+     *         Whether the value must be cached regardless of the limit.
+     *
+     * @return The cached value.
+     */
+    private <K, V> V cache(ConcurrentMap<K, V> cache, K key, V value, boolean registered) {
+
+        // The size is approximate under contention, which may overshoot the limit only slightly.
+        if (!registered && cache.size() >= maxCachedTypes) {
+            return value;
+        }
+
+        V existing = cache.putIfAbsent(key, value);
+
+        return existing != null ? existing : value;
     }
 
     /**
@@ -1,6 +1,9 @@
 package org.example;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+
 import java.io.IOException;
+import java.lang.reflect.Type;
 
 /**
  * Defines an abstract codec class responsible of encoding outgoing and decoding
@@ -52,10 +55,60 @@ public abstract class MimeTypeCodec {
      */
     public final <T> T decode(byte[] bytes, Class<T> type) throws IOException {
 
-        if (type == null) {
-            throw new IllegalArgumentException("Type cannot be null");
+        checkType(type);
+
+        if (bytes == null) {
+            return null;
         }
 
+        return doDecode(bytes, type);
+    }
+
+    /**
+     * Decodes the specified array of bytes into a new object of the generic type specified by
+     * {@code type}, such as {@code new TypeReference<List<Order>>() {}}.
+     *
+     * @param bytes
+     *         The array of bytes to decode.
+     * @param type
+     *         The generic type to which the array of bytes is to be decoded.
+     * @param <T>
+     *         The type parameter {@code T}.
+     *
+     * @return A new decoded object of type {@code type}. If {@code null} was
+     * specified as the array of bytes, {@code null} is returned instead.
+     *
+     * @throws IOException
+     *         An error occurred while decoding {@code bytes}.
+     */
+    public final <T> T decode(byte[] bytes, TypeReference<T> type) throws IOException {
+
+        checkType(type);
+
+        return decode(bytes, type.getType());
+    }
+
+    /**
+     * Decodes the specified array of bytes into a new object of the class or generic type
+     * specified by {@code type}.
+     *
+     * @param bytes
+     *         The array of bytes to decode.
+     * @param type
+     *         The class or generic type to which the array of bytes is to be decoded.
+     * @param <T>
+     *         The type parameter {@code T}.
+     *
+     * @return A new decoded object of type {@code type}. If {@code null} was
+     * specified as the array of bytes, {@code null} is returned instead.
+     *
+     * @throws IOException
+     *         An error occurred while decoding {@code bytes}.
+     */
+    public final <T> T decode(byte[] bytes, Type type) throws IOException {
+
+        checkType(type);
+
         if (bytes == null) {
             return null;
         }
@@ -63,6 +116,22 @@ public abstract class MimeTypeCodec {
         return doDecode(bytes, type);
     }
 
+    /**
+     * Checks that the type to decode to was specified.
+     *
+     * @param type
+     *         The type to which bytes are to be decoded.
+     *
+     * @throws IllegalArgumentException
+     *         {@code type} is {@code null}.
+     */
+    protected static void checkType(Object type) {
+
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+    }
+
     /**
      * Template method which should handle the encoding of {@code object} into an
      * array of bytes.
@@ -95,6 +164,35 @@ public abstract class MimeTypeCodec {
      */
     public abstract <T> T doDecode(byte[] bytes, Class<T> type) throws IOException;
 
+    /**
+     * Template method which should handle the decoding of {@code bytes} into a
+     * new object of the generic type {@code type}.
+     * </p>
+     * By default only plain classes are supported; codecs able to decode generic types
+     * should override this method.
+     *
+     * @param bytes
+     *         The array of bytes to decode.
+     * @param type
+     *         The generic type to which the array of bytes is to be decoded.
+     * @param <T>
+     *         The type parameter {@code T}.
+     *
+     * @return A new decoded object of type {@code type}.
+     *
+     * @throws IOException
+     *         An error occurred while decoding {@code bytes}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T doDecode(byte[] bytes, Type type) throws IOException {
+
+        if (type instanceof Class) {
+            return doDecode(bytes, (Class<T>) type);
+        }
+
+        throw new IOException("Generic type " + type + " cannot be decoded by " + getClass().getSimpleName());
+    }
+
     /**
      * Returns the {@link RestClient.MimeType} this codec is able to encode.
      *
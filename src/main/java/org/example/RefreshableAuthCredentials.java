@@ -0,0 +1,169 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines an abstract class for authentication credentials whose token expires and must be
+ * periodically renewed, such as OAuth bearer tokens.
+ * </p>
+ * The token is fetched once when {@link #start()} is invoked, and is then refreshed in the
+ * background on a dedicated daemon thread. The current token is swapped atomically, so that
+ * threads making requests never block on a refresh. Should a refresh fail, the previous token
+ * is kept until the next attempt succeeds.
+ *
+ * @author Duncan Attard
+ */
+public abstract class RefreshableAuthCredentials implements AuthCredentials, Closeable {
+
+    /**
+     * The interval between successive token refreshes in milliseconds.
+     */
+    private final long refreshIntervalMs;
+
+    /**
+     * The scheduler refreshing the token in the background.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Whether {@link #start()} completed successfully.
+     */
+    private volatile boolean started;
+
+    /**
+     * The current authentication token.
+     */
+    private volatile String authToken;
+
+    /**
+     * Creates and initializes a new instance of the {@link RefreshableAuthCredentials} class
+     * with the specified refresh interval.
+     *
+     * @param refreshIntervalMs
+     *         The interval between successive token refreshes in milliseconds.
+     */
+    protected RefreshableAuthCredentials(long refreshIntervalMs) {
+
+        if (refreshIntervalMs <= 0) {
+            throw new IllegalArgumentException("Refresh interval must be positive");
+        }
+
+        // Initialize.
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "auth-token-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Fetches the initial token and schedules its periodic refresh. Subsequent invocations have
+     * no effect, unless the previous one failed. Concurrent invocations wait for the first one,
+     * so that the credentials are started whenever this method returns normally.
+     *
+     * @return This instance, for convenience.
+     *
+     * @throws IOException
+     *         An error occurred while fetching the initial token.
+     * @throws IllegalStateException
+     *         The credentials have been closed.
+     */
+    public final synchronized RefreshableAuthCredentials start() throws IOException {
+
+        if (scheduler.isShutdown()) {
+            throw new IllegalStateException("Credentials have been closed");
+        }
+
+        if (started) {
+            return this;
+        }
+
+        // Fetch the first token on the calling thread so that it is available to the first request.
+        // Should this fail, the credentials remain unstarted and starting may be retried.
+        authToken = fetchAuthToken();
+
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+
+        started = true;
+
+        return this;
+    }
+
+    /**
+     * Fetches a new token and replaces the current one, keeping the current token on failure.
+     */
+    private void refresh() {
+        try {
+            String token = fetchAuthToken();
+
+            if (token != null) {
+                authToken = token;
+            }
+        }
+        catch (Exception ex) {
+            System.out.println("WARNING: Unable to refresh authentication token. Cause: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether {@link #start()} completed successfully.
+     *
+     * @return {@code true} if the credentials have been started, {@code false} otherwise.
+     */
+    public final boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Returns the most recently fetched authentication token.
+     *
+     * @return The encoded authentication token.
+     *
+     * @throws IllegalStateException
+     *         The credentials have not been started.
+     */
+    @Override
+    public final String getAuthToken() {
+
+        String token = authToken;
+
+        if (token == null) {
+            throw new IllegalStateException("Credentials have not been started");
+        }
+
+        return token;
+    }
+
+    /**
+     * Stops refreshing the token in the background.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Template method which should handle the fetching of a new, fully encoded authentication
+     * token, including its scheme (e.g. {@code "Bearer ..."}).
+     *
+     * @return The new encoded authentication token.
+     *
+     * @throws IOException
+     *         An error occurred while fetching the token.
+     */
+    protected abstract String fetchAuthToken() throws IOException;
+}
@@ -0,0 +1,683 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of requests in flight to each endpoint, queueing further requests in
+ * separate lanes according to their {@link Priority}.
+ * </p>
+ * Whenever a request completes, the next queued request is picked by smooth weighted
+ * round-robin across the non-empty lanes, so that each lane receives a share of the freed
+ * slots proportional to its weight. Bulk traffic can therefore never starve interactive
+ * traffic, nor the other way round. Requests that wait in a lane for longer than the lane
+ * allows are shed with a {@link RequestShedException} rather than sent late.
+ * </p>
+ * A single scheduler may be shared by several clients; it is thread-safe.
+ *
+ * @author Duncan Attard
+ */
+public final class RequestScheduler {
+
+    /**
+     * The maximum number of requests in flight to a single endpoint.
+     */
+    private final int maxInFlightPerEndpoint;
+
+    /**
+     * The weight of each lane, indexed by {@link Priority#ordinal()}.
+     */
+    private final int[] weights;
+
+    /**
+     * The maximum time a request may wait in each lane in nanoseconds, or {@code 0} if it may
+     * wait indefinitely, indexed by {@link Priority#ordinal()}.
+     */
+    private final long[] maxQueueWaitNanos;
+
+    /**
+     * The state of each endpoint, keyed by its base URL.
+     */
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * The number of requests currently queued in each lane, across all endpoints.
+     */
+    private final AtomicInteger[] queueDepths;
+
+    /**
+     * The number of requests granted a slot in each lane since the wait times were last reset.
+     */
+    private final AtomicLong[] grantedCounts;
+
+    /**
+     * The total time spent queueing by the requests granted a slot in each lane since the wait
+     * times were last reset, in nanoseconds.
+     */
+    private final AtomicLong[] totalWaitNanos;
+
+    /**
+     * The longest time spent queueing by a request granted a slot in each lane since the wait
+     * times were last reset, in nanoseconds.
+     */
+    private final AtomicLong[] maxWaitNanos;
+
+    /**
+     * The number of requests shed from each lane.
+     */
+    private final AtomicLong[] shedCounts;
+
+    private RequestScheduler(int maxInFlightPerEndpoint, int[] weights, long[] maxQueueWaitNanos) {
+
+        this.maxInFlightPerEndpoint = maxInFlightPerEndpoint;
+        this.weights = weights;
+        this.maxQueueWaitNanos = maxQueueWaitNanos;
+
+        int lanes = Priority.values().length;
+
+        this.queueDepths = new AtomicInteger[lanes];
+        this.grantedCounts = new AtomicLong[lanes];
+        this.totalWaitNanos = new AtomicLong[lanes];
+        this.maxWaitNanos = new AtomicLong[lanes];
+        this.shedCounts = new AtomicLong[lanes];
+
+        for (int i = 0; i < lanes; i++) {
+            queueDepths[i] = new AtomicInteger();
+            grantedCounts[i] = new AtomicLong();
+            totalWaitNanos[i] = new AtomicLong();
+            maxWaitNanos[i] = new AtomicLong();
+            shedCounts[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Returns a new {@link Builder} for creating a {@link RequestScheduler}.
+     *
+     * @return A new {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Waits for a slot to make a request to the specified endpoint in the lane of the specified
+     * priority. The returned permit must be released once the request completes.
+     *
+     * @param endpoint
+     *         The endpoint to which the request is to be made.
+     * @param priority
+     *         The priority of the request.
+     * @param deadline
+     *         The optional deadline by which the request must complete.
+     *
+     * @return The permit holding the slot.
+     *
+     * @throws RequestShedException
+     *         The request waited in its lane for longer than the lane allows.
+     * @throws DeadlineExceededException
+     *         The deadline expired while the request was waiting.
+     * @throws InterruptedIOException
+     *         The thread was interrupted while waiting.
+     */
+    public Permit acquire(String endpoint, Priority priority, Deadline deadline) throws IOException {
+
+        Endpoint state = endpoints.get(endpoint);
+
+        if (state == null) {
+            Endpoint newState = new Endpoint();
+            state = endpoints.putIfAbsent(endpoint, newState);
+
+            if (state == null) {
+                state = newState;
+            }
+        }
+
+        return state.acquire(priority, deadline);
+    }
+
+    /**
+     * Returns the number of requests currently queued in the lane of the specified priority,
+     * across all endpoints.
+     *
+     * @param priority
+     *         The priority of the lane.
+     *
+     * @return The number of queued requests.
+     */
+    public int getQueueDepth(Priority priority) {
+        return queueDepths[priority.ordinal()].get();
+    }
+
+    /**
+     * Returns the average time spent queueing by the requests granted a slot in the lane of
+     * the specified priority, since the wait times were last reset.
+     *
+     * @param priority
+     *         The priority of the lane.
+     *
+     * @return The average wait time in milliseconds, or {@code 0} if no request was granted yet.
+     */
+    public double getAverageWaitMs(Priority priority) {
+
+        long granted = grantedCounts[priority.ordinal()].get();
+
+        if (granted == 0) {
+            return 0;
+        }
+
+        return totalWaitNanos[priority.ordinal()].get() / (double) granted / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the longest time spent queueing by a request granted a slot in the lane of the
+     * specified priority, since the wait times were last reset.
+     *
+     * @param priority
+     *         The priority of the lane.
+     *
+     * @return The longest wait time in milliseconds, or {@code 0} if no request was granted yet.
+     */
+    public double getMaxWaitMs(Priority priority) {
+        return maxWaitNanos[priority.ordinal()].get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Resets the wait times of all lanes, so that the average and longest wait times reflect
+     * only the requests granted a slot from now on. Invoking this periodically, e.g. whenever
+     * the wait times are reported, turns them into per-interval figures.
+     */
+    public void resetWaitTimes() {
+
+        for (int i = 0; i < grantedCounts.length; i++) {
+            grantedCounts[i].set(0);
+            totalWaitNanos[i].set(0);
+            maxWaitNanos[i].set(0);
+        }
+    }
+
+    /**
+     * Records the time spent queueing by a request granted a slot in the specified lane.
+     *
+     * @param lane
+     *         The lane, as a {@link Priority#ordinal()}.
+     * @param waitNanos
+     *         The time spent queueing in nanoseconds.
+     */
+    private void recordWait(int lane, long waitNanos) {
+
+        grantedCounts[lane].incrementAndGet();
+        totalWaitNanos[lane].addAndGet(waitNanos);
+
+        long max;
+
+        while (waitNanos > (max = maxWaitNanos[lane].get())) {
+            if (maxWaitNanos[lane].compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests currently in flight to the specified endpoint.
+     *
+     * @param endpoint
+     *         The endpoint.
+     *
+     * @return The number of requests in flight.
+     */
+    int getInFlight(String endpoint) {
+
+        Endpoint state = endpoints.get(endpoint);
+
+        if (state == null) {
+            return 0;
+        }
+
+        state.lock.lock();
+
+        try {
+            return state.inFlight;
+        }
+        finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests shed from the lane of the specified priority.
+     *
+     * @param priority
+     *         The priority of the lane.
+     *
+     * @return The number of shed requests.
+     */
+    public long getShedCount(Priority priority) {
+        return shedCounts[priority.ordinal()].get();
+    }
+
+    /**
+     * The priority of a request, determining the lane in which it is queued.
+     */
+    public static enum Priority {
+
+        /**
+         * User-facing requests, which are never shed by default.
+         */
+        INTERACTIVE(4, 0),
+
+        /**
+         * Background requests, such as batch synchronization, which are shed by default after
+         * waiting for 5 seconds.
+         */
+        BULK(1, 5000);
+
+        /**
+         * The default weight of the lane.
+         */
+        private final int weight;
+
+        /**
+         * The default maximum wait in the lane in milliseconds.
+         */
+        private final long maxQueueWaitMs;
+
+        private Priority(int weight, long maxQueueWaitMs) {
+            this.weight = weight;
+            this.maxQueueWaitMs = maxQueueWaitMs;
+        }
+    }
+
+    /**
+     * Holds a slot to make a request to an endpoint until released.
+     */
+    public static final class Permit implements Closeable {
+
+        /**
+         * The endpoint to which the slot belongs.
+         */
+        private final Endpoint endpoint;
+
+        /**
+         * Whether the slot was released.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Releases the slot, handing it to the next queued request. Subsequent invocations have
+         * no effect.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                endpoint.release();
+            }
+        }
+    }
+
+    /**
+     * A request waiting in a lane for a slot.
+     */
+    private static final class Waiter {
+
+        /**
+         * The lane in which the request waits, as a {@link Priority#ordinal()}.
+         */
+        private final int lane;
+
+        /**
+         * The time at which the request was queued, as per {@link System#nanoTime()}.
+         */
+        private final long queuedNanos;
+
+        /**
+         * The condition signalled once the request is granted a slot or shed.
+         */
+        private final Condition condition;
+
+        /**
+         * Whether the request was granted a slot.
+         */
+        private boolean granted;
+
+        /**
+         * Whether the request was shed.
+         */
+        private boolean shed;
+
+        private Waiter(int lane, long queuedNanos, Condition condition) {
+            this.lane = lane;
+            this.queuedNanos = queuedNanos;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * The slots and lanes of a single endpoint.
+     */
+    private final class Endpoint {
+
+        /**
+         * The lock guarding all of the endpoint state.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The queued requests of each lane, indexed by {@link Priority#ordinal()}.
+         */
+        private final List<ArrayDeque<Waiter>> lanes;
+
+        /**
+         * The current weight of each lane used by the smooth weighted round-robin.
+         */
+        private final int[] currentWeights;
+
+        /**
+         * The number of requests in flight.
+         */
+        private int inFlight;
+
+        private Endpoint() {
+
+            lanes = new ArrayList<>(weights.length);
+            currentWeights = new int[weights.length];
+
+            for (int i = 0; i < weights.length; i++) {
+                lanes.add(new ArrayDeque<Waiter>());
+            }
+        }
+
+        private Permit acquire(Priority priority, Deadline deadline) throws IOException {
+
+            int lane = priority.ordinal();
+            long queuedNanos = System.nanoTime();
+
+            lock.lock();
+
+            try {
+
+                // Take a free slot straight away unless others are already waiting for one.
+                if (inFlight < maxInFlightPerEndpoint && isIdle()) {
+                    inFlight++;
+                    recordWait(lane, 0);
+
+                    return new Permit(this);
+                }
+
+                Waiter waiter = new Waiter(lane, queuedNanos, lock.newCondition());
+                lanes.get(lane).add(waiter);
+                queueDepths[lane].incrementAndGet();
+
+                try {
+                    while (!waiter.granted && !waiter.shed) {
+
+                        // The time left before being shed from the lane, and before the deadline.
+                        long laneRemainingNanos = Long.MAX_VALUE;
+                        long deadlineRemainingNanos = Long.MAX_VALUE;
+
+                        if (maxQueueWaitNanos[lane] > 0) {
+                            laneRemainingNanos = maxQueueWaitNanos[lane] - (System.nanoTime() - queuedNanos);
+                        }
+
+                        if (deadline != null) {
+                            deadlineRemainingNanos = deadline.remainingNanos();
+                        }
+
+                        // Fail according to whichever limit was reached first.
+                        if (deadlineRemainingNanos <= 0 && deadlineRemainingNanos <= laneRemainingNanos) {
+                            dequeue(waiter);
+                            throw new DeadlineExceededException("Deadline exceeded while queued for endpoint");
+                        }
+
+                        if (laneRemainingNanos <= 0) {
+                            dequeue(waiter);
+                            shed(waiter);
+                            break;
+                        }
+
+                        // Wait until granted a slot or either limit is reached.
+                        long timeoutNanos = Math.min(laneRemainingNanos, deadlineRemainingNanos);
+
+                        if (timeoutNanos == Long.MAX_VALUE) {
+                            waiter.condition.await();
+                        }
+                        else {
+                            waiter.condition.awaitNanos(timeoutNanos);
+                        }
+                    }
+                }
+                catch (InterruptedException ex) {
+
+                    if (waiter.granted) {
+
+                        // Give the slot granted in the meantime to the next queued request.
+                        releaseLocked();
+                    }
+                    else if (!waiter.shed) {
+                        dequeue(waiter);
+                    }
+
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while queued for endpoint");
+                }
+
+                if (waiter.shed) {
+                    throw new RequestShedException("Request shed after waiting longer than allowed by the "
+                            + priority + " lane");
+                }
+
+                recordWait(lane, System.nanoTime() - queuedNanos);
+
+                return new Permit(this);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() {
+
+            lock.lock();
+
+            try {
+                releaseLocked();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Frees a slot and hands free slots to the next queued requests. Must be invoked while
+         * holding the lock.
+         */
+        private void releaseLocked() {
+
+            inFlight--;
+
+            while (inFlight < maxInFlightPerEndpoint) {
+
+                Waiter next = pollNext();
+
+                if (next == null) {
+                    break;
+                }
+
+                inFlight++;
+                next.granted = true;
+                next.condition.signal();
+            }
+        }
+
+        /**
+         * Sheds the overdue requests and removes the next request to grant a slot to by smooth
+         * weighted round-robin across the non-empty lanes. Must be invoked while holding the lock.
+         *
+         * @return The next request, or {@code null} if no request is queued.
+         */
+        private Waiter pollNext() {
+
+            long now = System.nanoTime();
+
+            // The lane with the highest current weight, and the total weight of non-empty lanes.
+            int selected = -1;
+            int totalWeight = 0;
+
+            for (int i = 0; i < lanes.size(); i++) {
+
+                // Do not hand slots to requests that waited too long - shed them instead.
+                Waiter head;
+
+                while (maxQueueWaitNanos[i] > 0 && (head = lanes.get(i).peek()) != null
+                        && now - head.queuedNanos >= maxQueueWaitNanos[i]) {
+                    dequeue(head);
+                    shed(head);
+                    head.condition.signal();
+                }
+
+                if (!lanes.get(i).isEmpty()) {
+                    currentWeights[i] += weights[i];
+                    totalWeight += weights[i];
+
+                    if (selected == -1 || currentWeights[i] > currentWeights[selected]) {
+                        selected = i;
+                    }
+                }
+            }
+
+            if (selected == -1) {
+                return null;
+            }
+
+            currentWeights[selected] -= totalWeight;
+
+            Waiter next = lanes.get(selected).peek();
+            dequeue(next);
+
+            return next;
+        }
+
+        private void dequeue(Waiter waiter) {
+            lanes.get(waiter.lane).remove(waiter);
+            queueDepths[waiter.lane].decrementAndGet();
+        }
+
+        /**
+         * Marks the specified dequeued request as shed and counts it, whether or not its thread
+         * later observes it.
+         */
+        private void shed(Waiter waiter) {
+            waiter.shed = true;
+            shedCounts[waiter.lane].incrementAndGet();
+        }
+
+        private boolean isIdle() {
+
+            for (ArrayDeque<Waiter> lane : lanes) {
+                if (!lane.isEmpty()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Builds immutable {@link RequestScheduler} instances.
+     */
+    public static final class Builder {
+
+        /**
+         * The maximum number of requests in flight to a single endpoint.
+         */
+        private int maxInFlightPerEndpoint = 8;
+
+        /**
+         * The weight of each lane.
+         */
+        private final int[] weights;
+
+        /**
+         * The maximum time a request may wait in each lane in milliseconds.
+         */
+        private final long[] maxQueueWaitMs;
+
+        private Builder() {
+
+            Priority[] priorities = Priority.values();
+
+            weights = new int[priorities.length];
+            maxQueueWaitMs = new long[priorities.length];
+
+            for (Priority priority : priorities) {
+                weights[priority.ordinal()] = priority.weight;
+                maxQueueWaitMs[priority.ordinal()] = priority.maxQueueWaitMs;
+            }
+        }
+
+        public Builder maxInFlightPerEndpoint(int maxInFlightPerEndpoint) {
+
+            if (maxInFlightPerEndpoint <= 0) {
+                throw new IllegalArgumentException("Maximum in flight requests must be positive");
+            }
+
+            this.maxInFlightPerEndpoint = maxInFlightPerEndpoint;
+            return this;
+        }
+
+        /**
+         * Configures the lane of the specified priority.
+         *
+         * @param priority
+         *         The priority of the lane.
+         * @param weight
+         *         The share of freed slots the lane receives relative to the other lanes.
+         * @param maxQueueWaitMs
+         *         The maximum time a request may wait in the lane before being shed in
+         *         milliseconds, or {@code 0} if it may wait indefinitely.
+         *
+         * @return This builder.
+         */
+        public Builder lane(Priority priority, int weight, long maxQueueWaitMs) {
+
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be positive");
+            }
+
+            if (maxQueueWaitMs < 0) {
+                throw new IllegalArgumentException("Maximum queue wait cannot be negative");
+            }
+
+            weights[priority.ordinal()] = weight;
+            this.maxQueueWaitMs[priority.ordinal()] = maxQueueWaitMs;
+            return this;
+        }
+
+        public RequestScheduler build() {
+
+            long[] maxQueueWaitNanos = new long[maxQueueWaitMs.length];
+
+            for (int i = 0; i < maxQueueWaitMs.length; i++) {
+                maxQueueWaitNanos[i] = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMs[i]);
+            }
+
+            return new RequestScheduler(maxInFlightPerEndpoint, weights.clone(), maxQueueWaitNanos);
+        }
+    }
+}
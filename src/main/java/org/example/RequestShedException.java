@@ -0,0 +1,25 @@
+package org.example;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request was dropped by the {@link RequestScheduler} without being sent,
+ * because it waited in its lane for longer than the lane allows.
+ *
+ * @author Duncan Attard
+ */
+public class RequestShedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates and initializes a new instance of the {@link RequestShedException} class with
+     * the specified detail message.
+     *
+     * @param message
+     *         The detail message.
+     */
+    public RequestShedException(String message) {
+        super(message);
+    }
+}
@@ -4,35 +4,86 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by duncan on 23/11/2014.
+ * </p>
+ * Instances are immutable once created, and may therefore be safely shared between threads.
  */
 public abstract class RestClient {
 
+    /**
+     * The scheduler aborting the connections of calls that overrun their deadline, shared by
+     * all clients.
+     */
+    private static final ScheduledThreadPoolExecutor DEADLINE_SCHEDULER = createDeadlineScheduler();
+
     /**
      * The base URL to which the client is to connect to.
      */
-    private String url;
+    private final String url;
 
     /**
      * The connection timeout in milliseconds.
      */
-    private int connectionTimeoutMs;
+    private final int connectionTimeoutMs;
 
     /**
      * The read timeout in milliseconds.
      */
-    private int readTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * The default overall timeout of a call in milliseconds, or {@code 0} if calls have no
+     * deadline unless one is specified.
+     */
+    private final long requestTimeoutMs;
 
     /**
      * The optional authentication credentials.
      */
-    private AuthCredentials credentials;
+    private final AuthCredentials credentials;
+
+    /**
+     * The headers added to every request, computed once upon creation. These include the
+     * {@code Authorization} header, unless the credentials are refreshed in the background.
+     */
+    private final Map<String, String> headers;
+
+    /**
+     * The optional credentials whose token is refreshed in the background, and must therefore
+     * be read on every request.
+     */
+    private final RefreshableAuthCredentials refreshableCredentials;
+
+    /**
+     * The optional scheduler bounding and prioritizing the requests in flight.
+     */
+    private final RequestScheduler scheduler;
+
+    /**
+     * The number of calls which failed because they overran their deadline.
+     */
+    private final AtomicLong deadlineExceededCount = new AtomicLong();
+
+    /**
+     * The number of calls which failed for any other reason.
+     */
+    private final AtomicLong failureCount = new AtomicLong();
 
     /**
      * Creates and initializes a new instance of the {@link RestClient} class with the specified
@@ -46,6 +97,32 @@ public abstract class RestClient {
      *         The read timeout in milliseconds.
      */
     public RestClient(String url, int connectionTimeoutMs, int readTimeoutMs) {
+        this(url, connectionTimeoutMs, readTimeoutMs, 0, null, null, null);
+    }
+
+    /**
+     * Creates and initializes a new instance of the {@link RestClient} class with the specified
+     * arguments.
+     *
+     * @param url
+     *         The base URL to which the client is to connect to.
+     * @param connectionTimeoutMs
+     *         The connection timeout in milliseconds.
+     * @param readTimeoutMs
+     *         The read timeout in milliseconds.
+     * @param requestTimeoutMs
+     *         The default overall timeout of a call in milliseconds, or {@code 0} for none.
+     * @param credentials
+     *         The optional authentication credentials, which must already be started if
+     *         refreshable.
+     * @param headers
+     *         The optional headers to add to every request.
+     * @param scheduler
+     *         The optional scheduler bounding and prioritizing the requests in flight.
+     */
+    protected RestClient(String url, int connectionTimeoutMs, int readTimeoutMs, long requestTimeoutMs,
+                         AuthCredentials credentials, Map<String, String> headers,
+                         RequestScheduler scheduler) {
 
         if (url == null || url.isEmpty()) {
             throw new IllegalArgumentException("URL cannot be empty");
@@ -55,6 +132,108 @@ public abstract class RestClient {
         this.url = normalizeUrl(url);
         this.connectionTimeoutMs = Math.abs(connectionTimeoutMs);
         this.readTimeoutMs = Math.abs(readTimeoutMs);
+        this.requestTimeoutMs = Math.abs(requestTimeoutMs);
+        this.credentials = credentials;
+        this.scheduler = scheduler;
+
+        // Copy the constant headers so that later changes to the specified map are not seen.
+        Map<String, String> constantHeaders = new LinkedHashMap<>();
+
+        if (headers != null) {
+            constantHeaders.putAll(headers);
+        }
+
+        if (credentials instanceof RefreshableAuthCredentials) {
+
+            // Token changes over time - read it on every request.
+            this.refreshableCredentials = (RefreshableAuthCredentials) credentials;
+
+            if (!refreshableCredentials.isStarted()) {
+                throw new IllegalArgumentException("Refreshable credentials must be started");
+            }
+        }
+        else {
+            this.refreshableCredentials = null;
+
+            // Token is constant - encode it once.
+            if (credentials != null) {
+                try {
+                    constantHeaders.put("Authorization", credentials.getAuthToken());
+                }
+                catch (UnsupportedEncodingException ex) {
+                    throw new IllegalArgumentException("Unable to encode credentials", ex);
+                }
+            }
+        }
+
+        this.headers = Collections.unmodifiableMap(constantHeaders);
+    }
+
+    /**
+     * Creates the daemon scheduler used to abort the connections of calls overrunning their
+     * deadline.
+     *
+     * @return The new scheduler.
+     */
+    private static ScheduledThreadPoolExecutor createDeadlineScheduler() {
+
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rest-client-deadline");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // Most calls complete in time - do not keep their cancelled aborts queued.
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        return scheduler;
+    }
+
+    /**
+     * Throws a {@link DeadlineExceededException} if the specified deadline has expired.
+     *
+     * @param deadline
+     *         The optional deadline to check.
+     * @param stage
+     *         The stage of the call about to be started, used in the exception message.
+     *
+     * @throws DeadlineExceededException
+     *         The deadline has expired.
+     */
+    private static void throwIfExpired(Deadline deadline, String stage) throws DeadlineExceededException {
+
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded before " + stage);
+        }
+    }
+
+    /**
+     * Bounds the specified connection or read timeout by the time remaining before the deadline.
+     *
+     * @param timeoutMs
+     *         The timeout in milliseconds, where {@code 0} denotes an infinite timeout.
+     * @param deadline
+     *         The optional deadline.
+     *
+     * @return The bounded timeout in milliseconds.
+     */
+    private static int boundTimeout(int timeoutMs, Deadline deadline) {
+
+        if (deadline == null) {
+            return timeoutMs;
+        }
+
+        // Never return 0, since that would disable the timeout altogether.
+        long remainingMs = Math.max(1, Math.min(deadline.remainingMs(), Integer.MAX_VALUE));
+
+        if (timeoutMs == 0 || remainingMs < timeoutMs) {
+            return (int) remainingMs;
+        }
+
+        return timeoutMs;
     }
 
     /**
@@ -62,13 +241,15 @@ public abstract class RestClient {
      *
      * @param input
      *         The input stream to read.
+     * @param deadline
+     *         The optional deadline by which the input stream must be read.
      *
      * @return An array of bytes containing all of the input stream.
      *
      * @throws IOException
      *         An error occurred while reading from the input stream.
      */
-    private static byte[] readBytes(InputStream input) throws IOException {
+    private static byte[] readBytes(InputStream input, Deadline deadline) throws IOException {
 
         // The array containing all of the input stream data.
         byte[] bytes = new byte[0];
@@ -81,6 +262,9 @@ public abstract class RestClient {
 
         while ((bytesRead = input.read(buffer, 0, buffer.length)) != -1) {
 
+            // The read timeout resets on every chunk - stop trickling responses.
+            throwIfExpired(deadline, "response was fully read");
+
             // Create new enlarged array to contain old and new data.
             byte[] temp = new byte[bytes.length + bytesRead];
 
@@ -190,10 +374,91 @@ public abstract class RestClient {
     protected final byte[] doRequest(String resource, byte[] body, HttpMethod method,
                                      MimeType accept, MimeType contentType,
                                      Map<String, String> requestProperties) throws IOException {
+        return doRequest(resource, body, method, accept, contentType, requestProperties, null);
+    }
+
+    /**
+     * Makes a request to the specified {@code resource} as {@link #doRequest(String, byte[],
+     * HttpMethod, MimeType, MimeType, Map)} does, which must complete by the specified deadline.
+     * </p>
+     * The effective deadline is the earliest of {@code deadline}, the deadline attached to the
+     * calling thread and the default request timeout. It bounds connection setup, writing the
+     * body and reading the response; should it expire while blocked on the socket, the
+     * connection is actively aborted.
+     *
+     * @param resource
+     * @param body
+     * @param method
+     * @param accept
+     * @param contentType
+     * @param requestProperties
+     * @param deadline
+     *         The optional deadline by which the request must complete.
+     *
+     * @return
+     *
+     * @throws DeadlineExceededException
+     *         The request did not complete by its deadline.
+     * @throws IOException
+     */
+    protected final byte[] doRequest(String resource, byte[] body, HttpMethod method,
+                                     MimeType accept, MimeType contentType,
+                                     Map<String, String> requestProperties,
+                                     Deadline deadline) throws IOException {
+        return doRequest(resource, body, method, accept, contentType, requestProperties, deadline, null);
+    }
+
+    /**
+     * Makes a request to the specified {@code resource} as {@link #doRequest(String, byte[],
+     * HttpMethod, MimeType, MimeType, Map, Deadline)} does, with the specified priority.
+     * </p>
+     * When the client has a {@link RequestScheduler}, the request first waits for a slot in the
+     * lane of its priority. The time spent waiting counts towards the deadline.
+     *
+     * @param resource
+     * @param body
+     * @param method
+     * @param accept
+     * @param contentType
+     * @param requestProperties
+     * @param deadline
+     *         The optional deadline by which the request must complete.
+     * @param priority
+     *         The priority of the request, or {@code null} for
+     *         {@link RequestScheduler.Priority#INTERACTIVE}.
+     *
+     * @return
+     *
+     * @throws DeadlineExceededException
+     *         The request did not complete by its deadline.
+     * @throws RequestShedException
+     *         The request waited in its lane for longer than the lane allows.
+     * @throws IOException
+     */
+    protected final byte[] doRequest(String resource, byte[] body, HttpMethod method,
+                                     MimeType accept, MimeType contentType,
+                                     Map<String, String> requestProperties,
+                                     Deadline deadline, RequestScheduler.Priority priority) throws IOException {
+
+        // The deadline by which the request must complete, if any.
+        Deadline effectiveDeadline = resolveDeadline(deadline);
 
         // The connection used to make the request.
         HttpURLConnection connection = null;
 
+        // The scheduled abort of the connection once the deadline expires.
+        ScheduledFuture<?> abort = null;
+
+        // Whether the connection was aborted because the deadline expired.
+        final AtomicBoolean aborted = new AtomicBoolean();
+
+        // Whether the connection or read timeout was shortened to the time remaining, so that a
+        // socket timeout means the deadline was reached.
+        boolean timeoutBoundByDeadline = false;
+
+        // The slot held while the request is in flight.
+        RequestScheduler.Permit permit = null;
+
         // The output and input streams used to write and read data
         // to/from the server.
         OutputStream output = null;
@@ -201,9 +466,41 @@ public abstract class RestClient {
 
         try {
 
+            // Wait for a slot in the lane of the request priority.
+            if (scheduler != null) {
+                permit = scheduler.acquire(url,
+                        priority != null ? priority : RequestScheduler.Priority.INTERACTIVE,
+                        effectiveDeadline);
+            }
+
+            throwIfExpired(effectiveDeadline, "connecting");
+
             // Open a new connection to the resource.
             connection = openResourceConnection(resource, body, method, accept, contentType, requestProperties);
 
+            if (effectiveDeadline != null) {
+
+                // Bound the timeouts by the remaining time.
+                int boundConnectionTimeoutMs = boundTimeout(connectionTimeoutMs, effectiveDeadline);
+                int boundReadTimeoutMs = boundTimeout(readTimeoutMs, effectiveDeadline);
+
+                connection.setConnectTimeout(boundConnectionTimeoutMs);
+                connection.setReadTimeout(boundReadTimeoutMs);
+
+                timeoutBoundByDeadline = boundConnectionTimeoutMs != connectionTimeoutMs
+                        || boundReadTimeoutMs != readTimeoutMs;
+
+                // Abort the socket should the call still be blocked when the deadline expires.
+                final HttpURLConnection abortedConnection = connection;
+                abort = DEADLINE_SCHEDULER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        aborted.set(true);
+                        abortedConnection.disconnect();
+                    }
+                }, effectiveDeadline.remainingMs(), TimeUnit.MILLISECONDS);
+            }
+
             if (body != null) {
 
                 // Write request to server.
@@ -211,14 +508,48 @@ public abstract class RestClient {
                 output.write(body);
             }
 
+            throwIfExpired(effectiveDeadline, "reading response");
+
             // Read response from server.
             input = connection.getInputStream();
-            byte[] bytes = readBytes(input);
+            byte[] bytes = readBytes(input, effectiveDeadline);
 
             return bytes;
         }
+        catch (DeadlineExceededException ex) {
+            deadlineExceededCount.incrementAndGet();
+            throw ex;
+        }
+        catch (IOException ex) {
+
+            // Aborts, and socket timeouts shortened to the deadline, are not ordinary failures.
+            // Any other error is, even if the deadline has since expired.
+            boolean deadlineTimeout = ex instanceof SocketTimeoutException && timeoutBoundByDeadline
+                    && effectiveDeadline.isExpired();
+
+            if (aborted.get() || deadlineTimeout) {
+                deadlineExceededCount.incrementAndGet();
+
+                DeadlineExceededException deadlineEx = new DeadlineExceededException(
+                        "Deadline exceeded while requesting resource. Cause: " + ex.getMessage());
+                deadlineEx.initCause(ex);
+                throw deadlineEx;
+            }
+
+            failureCount.incrementAndGet();
+            throw ex;
+        }
+        catch (RuntimeException ex) {
+            failureCount.incrementAndGet();
+            throw ex;
+        }
         finally {
 
+            // Cancel the abort of the connection.
+            if (abort != null) {
+                abort.cancel(false);
+            }
+
             // Close output and input streams.
             closeStream(output);
             closeStream(input);
@@ -227,9 +558,65 @@ public abstract class RestClient {
             if (connection != null) {
                 connection.disconnect();
             }
+
+            // Hand the slot to the next queued request.
+            if (permit != null) {
+                permit.close();
+            }
         }
     }
 
+    /**
+     * Resolves the deadline of a call as the earliest of the specified deadline, the deadline
+     * attached to the calling thread and the default request timeout.
+     *
+     * @param deadline
+     *         The optional deadline specified for the call.
+     *
+     * @return The effective deadline, or {@code null} if the call has none.
+     */
+    protected final Deadline resolveDeadline(Deadline deadline) {
+
+        Deadline effectiveDeadline = Deadline.earliest(deadline, Deadline.current());
+
+        if (requestTimeoutMs > 0) {
+            effectiveDeadline = Deadline.earliest(effectiveDeadline, Deadline.after(requestTimeoutMs));
+        }
+
+        return effectiveDeadline;
+    }
+
+    /**
+     * Throws a {@link DeadlineExceededException} if the specified deadline has expired, counting
+     * it as a deadline exceeded event. Subclasses should use this to enforce the deadline across
+     * work done outside of {@link #doRequest}, such as decoding.
+     *
+     * @param deadline
+     *         The optional deadline to check.
+     * @param stage
+     *         The stage of the call about to be started, used in the exception message.
+     *
+     * @throws DeadlineExceededException
+     *         The deadline has expired.
+     */
+    protected final void checkDeadline(Deadline deadline, String stage) throws DeadlineExceededException {
+        try {
+            throwIfExpired(deadline, stage);
+        }
+        catch (DeadlineExceededException ex) {
+            deadlineExceededCount.incrementAndGet();
+            throw ex;
+        }
+    }
+
+    /**
+     * Counts a call which failed outside of {@link #doRequest}, such as while encoding or
+     * decoding, for reasons other than overrunning its deadline.
+     */
+    protected final void recordFailure() {
+        failureCount.incrementAndGet();
+    }
+
     private void addMimeTypes() {
 
     }
@@ -264,9 +651,14 @@ public abstract class RestClient {
         connection.addRequestProperty("Accept", accept.getMediaString());
         connection.addRequestProperty("Content-Type", contentType.getMediaString());
 
-        // Add Authorization header and token if present.
-        if (credentials != null) {
-            connection.addRequestProperty("Authorization", credentials.getAuthToken());
+        // Add the precomputed constant headers, including Authorization if present.
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        // Add the current token of refreshable credentials if present.
+        if (refreshableCredentials != null) {
+            connection.setRequestProperty("Authorization", refreshableCredentials.getAuthToken());
         }
 
         // Finally add all other request properties if present.
@@ -279,12 +671,40 @@ public abstract class RestClient {
         return connection;
     }
 
+    /**
+     * Returns the optional authentication credentials.
+     *
+     * @return The authentication credentials, or {@code null} if none were specified.
+     */
     public AuthCredentials getCredentials() {
         return credentials;
     }
 
-    public void setCredentials(AuthCredentials credentials) {
-        this.credentials = credentials;
+    /**
+     * Returns the optional scheduler bounding and prioritizing the requests in flight.
+     *
+     * @return The scheduler, or {@code null} if none was specified.
+     */
+    public RequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the number of calls which failed because they overran their deadline.
+     *
+     * @return The number of deadline exceeded events.
+     */
+    public long getDeadlineExceededCount() {
+        return deadlineExceededCount.get();
+    }
+
+    /**
+     * Returns the number of calls which failed for reasons other than overrunning their deadline.
+     *
+     * @return The number of other failures.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
     }
 
 
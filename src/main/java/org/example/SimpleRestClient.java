@@ -1,6 +1,10 @@
 package org.example;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -8,28 +12,256 @@ import java.util.Map;
  */
 public class SimpleRestClient extends RestClient {
 
-    private MimeTypeCodec codec;
+    private final MimeTypeCodec codec;
 
     public SimpleRestClient(String url, MimeTypeCodec codec, int connectionTimeoutMs, int readTimeoutMs) {
-        super(url, connectionTimeoutMs, readTimeoutMs);
+        this(url, codec, connectionTimeoutMs, readTimeoutMs, 0, null, null, null);
+    }
+
+    private SimpleRestClient(String url, MimeTypeCodec codec, int connectionTimeoutMs, int readTimeoutMs,
+                             long requestTimeoutMs, AuthCredentials credentials, Map<String, String> headers,
+                             RequestScheduler scheduler) {
+        super(url, connectionTimeoutMs, readTimeoutMs, requestTimeoutMs, credentials, headers, scheduler);
         this.codec = codec;
     }
 
+    /**
+     * Returns a new {@link Builder} for creating a {@link SimpleRestClient} connecting to the
+     * specified base URL.
+     *
+     * @param url
+     *         The base URL to which the client is to connect to.
+     *
+     * @return A new {@link Builder}.
+     */
+    public static Builder builder(String url) {
+        return new Builder(url);
+    }
+
 //    public <T> T create(String resource, Object body, Class<T> type, Map<String, String> requestProperties) throws IOException {
 //        return codec.decode(doRequest(resource, codec.encode(body), HttpMethod.POST, codec.getEncodingMimeType(), codec.getDecodingMimeType(), requestProperties), type);
 //    }
 
     public <T> T read(String resource, Object body, Class<T> type, Map<String, String> requestProperties) throws IOException {
-        return codec.decode(
-                doRequest(resource,
-                        codec.encode(body),
-                        HttpMethod.GET,
-                        codec.getEncodingMimeType(),
-                        codec.getDecodingMimeType(),
-                        requestProperties),
-                type
-        );
+        return read(resource, body, type, requestProperties, null);
+    }
+
+    public <T> T read(String resource, Object body, Class<T> type, Map<String, String> requestProperties,
+                      Deadline deadline) throws IOException {
+        return read(resource, body, type, requestProperties, deadline, null);
+    }
+
+    public <T> T read(String resource, Object body, Class<T> type, Map<String, String> requestProperties,
+                      Deadline deadline, RequestScheduler.Priority priority) throws IOException {
+        return doRead(resource, body, type, requestProperties, deadline, priority);
+    }
+
+    public <T> T read(String resource, Object body, TypeReference<T> type, Map<String, String> requestProperties) throws IOException {
+        return read(resource, body, type, requestProperties, null);
+    }
+
+    public <T> T read(String resource, Object body, TypeReference<T> type, Map<String, String> requestProperties,
+                      Deadline deadline) throws IOException {
+        return read(resource, body, type, requestProperties, deadline, null);
+    }
+
+    public <T> T read(String resource, Object body, TypeReference<T> type, Map<String, String> requestProperties,
+                      Deadline deadline, RequestScheduler.Priority priority) throws IOException {
+
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+
+        return doRead(resource, body, type.getType(), requestProperties, deadline, priority);
+    }
+
+    /**
+     * Reads the specified resource, decoding the response to the class or generic type
+     * specified by {@code type}, which may also be a Jackson
+     * {@link com.fasterxml.jackson.databind.JavaType}.
+     */
+    public <T> T read(String resource, Object body, Type type, Map<String, String> requestProperties) throws IOException {
+        return read(resource, body, type, requestProperties, null);
+    }
+
+    public <T> T read(String resource, Object body, Type type, Map<String, String> requestProperties,
+                      Deadline deadline) throws IOException {
+        return read(resource, body, type, requestProperties, deadline, null);
+    }
+
+    public <T> T read(String resource, Object body, Type type, Map<String, String> requestProperties,
+                      Deadline deadline, RequestScheduler.Priority priority) throws IOException {
+
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+
+        return doRead(resource, body, type, requestProperties, deadline, priority);
+    }
+
+    private <T> T doRead(String resource, Object body, Type type, Map<String, String> requestProperties,
+                         Deadline deadline, RequestScheduler.Priority priority) throws IOException {
+
+        Deadline effectiveDeadline = resolveDeadline(deadline);
+
+        // The deadline is checked by get() before decoding; decoding cannot be interrupted, so
+        // check it again once decoded.
+        byte[] bytes = get(resource, body, requestProperties, effectiveDeadline, priority);
+        T object;
+
+        try {
+            object = codec.decode(bytes, type);
+        }
+        catch (IOException | RuntimeException ex) {
+            recordFailure();
+            throw ex;
+        }
+
+        checkDeadline(effectiveDeadline, "response was returned");
+
+        return object;
+    }
+
+    private byte[] get(String resource, Object body, Map<String, String> requestProperties,
+                       Deadline deadline, RequestScheduler.Priority priority) throws IOException {
+
+        byte[] encodedBody;
+
+        try {
+            encodedBody = codec.encode(body);
+        }
+        catch (IOException | RuntimeException ex) {
+            recordFailure();
+            throw ex;
+        }
+
+        byte[] bytes = doRequest(resource,
+                encodedBody,
+                HttpMethod.GET,
+                codec.getEncodingMimeType(),
+                codec.getDecodingMimeType(),
+                requestProperties,
+                deadline,
+                priority);
+
+        checkDeadline(deadline, "decoding response");
+
+        return bytes;
     }
 
+    /**
+     * Builds immutable {@link SimpleRestClient} instances, which may be safely shared between
+     * threads.
+     * </p>
+     * Unless specified otherwise, clients use the {@link JsonMimeTypeCodec}, a connection timeout
+     * of {@value #DEFAULT_CONNECTION_TIMEOUT_MS}ms, a read timeout of
+     * {@value #DEFAULT_READ_TIMEOUT_MS}ms and no overall request timeout. A timeout of {@code 0}
+     * must be specified explicitly to wait indefinitely.
+     */
+    public static final class Builder {
+
+        /**
+         * The default connection timeout in milliseconds.
+         */
+        public static final int DEFAULT_CONNECTION_TIMEOUT_MS = 10000;
+
+        /**
+         * The default read timeout in milliseconds.
+         */
+        public static final int DEFAULT_READ_TIMEOUT_MS = 30000;
+
+        /**
+         * The base URL to which the client is to connect to.
+         */
+        private final String url;
+
+        /**
+         * The codec used to encode and decode messages, defaulting to JSON.
+         */
+        private MimeTypeCodec codec;
+
+        /**
+         * The connection timeout in milliseconds.
+         */
+        private int connectionTimeoutMs = DEFAULT_CONNECTION_TIMEOUT_MS;
+
+        /**
+         * The read timeout in milliseconds.
+         */
+        private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+
+        /**
+         * The default overall timeout of a call in milliseconds.
+         */
+        private long requestTimeoutMs;
+
+        /**
+         * The optional authentication credentials.
+         */
+        private AuthCredentials credentials;
 
+        /**
+         * The headers to add to every request.
+         */
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        /**
+         * The optional scheduler bounding and prioritizing the requests in flight.
+         */
+        private RequestScheduler scheduler;
+
+        private Builder(String url) {
+            this.url = url;
+        }
+
+        public Builder codec(MimeTypeCodec codec) {
+
+            if (codec == null) {
+                throw new IllegalArgumentException("Codec cannot be null");
+            }
+
+            this.codec = codec;
+            return this;
+        }
+
+        public Builder connectionTimeoutMs(int connectionTimeoutMs) {
+            this.connectionTimeoutMs = connectionTimeoutMs;
+            return this;
+        }
+
+        public Builder readTimeoutMs(int readTimeoutMs) {
+            this.readTimeoutMs = readTimeoutMs;
+            return this;
+        }
+
+        public Builder requestTimeoutMs(long requestTimeoutMs) {
+            this.requestTimeoutMs = requestTimeoutMs;
+            return this;
+        }
+
+        public Builder credentials(AuthCredentials credentials) {
+            this.credentials = credentials;
+            return this;
+        }
+
+        public Builder scheduler(RequestScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public Builder header(String name, String value) {
+
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("Header name cannot be empty");
+            }
+
+            headers.put(name, value);
+            return this;
+        }
+
+        public SimpleRestClient build() {
+            return new SimpleRestClient(url, codec != null ? codec : new JsonMimeTypeCodec(),
+                    connectionTimeoutMs, readTimeoutMs, requestTimeoutMs, credentials, headers, scheduler);
+        }
+    }
 }
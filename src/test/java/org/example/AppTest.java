@@ -20,8 +20,12 @@ public class AppTest
         //CrudRestClient client = new JsonRestClient("http://requestb.in/14q90lu1", 5000, 5000);
         //RestClient client = new JsonRestClient("http://www.mocky.io/v2/547a312fd020ce880756e8a0", 5000, 5000);
 
-        SimpleRestClient client = new SimpleRestClient("http://www.mocky.io/v2/547a312fd020ce880756e8a0", new JsonMimeTypeCodec(), 5000, 5000);
-        client.setCredentials(new BasicAuthCredentials("duncan", "attard"));
+        SimpleRestClient client = SimpleRestClient.builder("http://www.mocky.io/v2/547a312fd020ce880756e8a0")
+                .codec(new JsonMimeTypeCodec())
+                .connectionTimeoutMs(5000)
+                .readTimeoutMs(5000)
+                .credentials(new BasicAuthCredentials("duncan", "attard"))
+                .build();
 
 
         Map<String, String> requestProperties = new HashMap<>();
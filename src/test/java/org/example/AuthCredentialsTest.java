@@ -0,0 +1,201 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link BasicAuthCredentials} and {@link BearerAuthCredentials}.
+ */
+public class AuthCredentialsTest {
+
+    @Test
+    public void testBasicAuthToken() {
+        assertEquals("Basic ZHVuY2FuOmF0dGFyZA==", new BasicAuthCredentials("duncan", "attard").getAuthToken());
+    }
+
+    @Test
+    public void testBasicAuthTokenIsUtf8Encoded() {
+
+        String token = new BasicAuthCredentials("d\u00fcncan", "p\u00e4ss").getAuthToken();
+        String decoded = new String(Base64.getDecoder().decode(token.substring("Basic ".length())),
+                StandardCharsets.UTF_8);
+
+        assertEquals("d\u00fcncan:p\u00e4ss", decoded);
+    }
+
+    @Test
+    public void testBearerTokenIsRefreshedInTheBackground() throws Exception {
+
+        FakeTokenSource source = new FakeTokenSource();
+
+        try (BearerAuthCredentials credentials = new BearerAuthCredentials(source, 10)) {
+            credentials.start();
+            assertEquals("Bearer token1", credentials.getAuthToken());
+
+            source.awaitFetches(3);
+            assertFalse("Bearer token1".equals(credentials.getAuthToken()));
+        }
+    }
+
+    @Test
+    public void testFailedRefreshKeepsPreviousToken() throws Exception {
+
+        FakeTokenSource source = new FakeTokenSource();
+
+        try (BearerAuthCredentials credentials = new BearerAuthCredentials(source, 10)) {
+            credentials.start();
+            source.failing = true;
+
+            source.awaitFetches(4);
+            assertEquals("Bearer token1", credentials.getAuthToken());
+        }
+    }
+
+    @Test
+    public void testFailedStartCanBeRetried() throws Exception {
+
+        FakeTokenSource source = new FakeTokenSource();
+        source.failing = true;
+
+        try (BearerAuthCredentials credentials = new BearerAuthCredentials(source, 1000)) {
+            try {
+                credentials.start();
+                fail("Expected IOException");
+            }
+            catch (IOException ex) {
+                assertFalse(credentials.isStarted());
+            }
+
+            source.failing = false;
+            credentials.start();
+
+            assertTrue(credentials.isStarted());
+        }
+    }
+
+    @Test
+    public void testConcurrentStartsFetchOnceAndReturnStarted() throws Exception {
+
+        final FakeTokenSource source = new FakeTokenSource();
+        source.delayMs = 100;
+
+        try (final BearerAuthCredentials credentials = new BearerAuthCredentials(source, 1000)) {
+            final CountDownLatch ready = new CountDownLatch(1);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> threads = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            ready.await();
+                            credentials.start();
+
+                            // Returning normally must mean the credentials are usable.
+                            if (!credentials.isStarted()) {
+                                throw new AssertionError("start() returned before the token was fetched");
+                            }
+                        }
+                        catch (Throwable ex) {
+                            failure.compareAndSet(null, ex);
+                        }
+                    }
+                });
+
+                thread.start();
+                threads.add(thread);
+            }
+
+            ready.countDown();
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+
+            assertEquals(1, source.fetches.get());
+        }
+    }
+
+    @Test
+    public void testUnstartedAndClosedCredentials() throws IOException {
+
+        BearerAuthCredentials credentials = new BearerAuthCredentials(new FakeTokenSource(), 1000);
+
+        try {
+            credentials.getAuthToken();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException ex) {
+            // Expected.
+        }
+
+        credentials.close();
+
+        try {
+            credentials.start();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException ex) {
+            // Expected.
+        }
+    }
+
+    /**
+     * A token source returning numbered tokens, which can be made slow or failing.
+     */
+    private static class FakeTokenSource implements Callable<String> {
+
+        /**
+         * The number of times a token was requested.
+         */
+        private final AtomicInteger fetches = new AtomicInteger();
+
+        /**
+         * Whether requesting a token fails.
+         */
+        private volatile boolean failing;
+
+        /**
+         * The time taken to return a token in milliseconds.
+         */
+        private volatile long delayMs;
+
+        @Override
+        public String call() throws Exception {
+
+            int fetch = fetches.incrementAndGet();
+            Thread.sleep(delayMs);
+
+            if (failing) {
+                throw new IOException("Token source unavailable");
+            }
+
+            return "token" + fetch;
+        }
+
+        private void awaitFetches(int count) throws InterruptedException {
+            while (fetches.get() < count) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.example;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link Deadline}.
+ */
+public class DeadlineTest {
+
+    @Test
+    public void testRemainingMsDoesNotOverflowForLongTimeouts() {
+
+        for (long timeoutMs : new long[]{Long.MAX_VALUE, Long.MAX_VALUE / 1000, Integer.MAX_VALUE}) {
+            Deadline deadline = Deadline.after(timeoutMs);
+
+            assertFalse(deadline.isExpired());
+            assertTrue("remainingMs() for " + timeoutMs, deadline.remainingMs() > 0);
+        }
+    }
+
+    @Test
+    public void testRemainingMsRoundsUp() {
+
+        Deadline deadline = Deadline.after(1000);
+
+        assertTrue(deadline.remainingMs() > 0);
+        assertTrue(deadline.remainingMs() <= 1000);
+    }
+
+    @Test
+    public void testExpiredDeadlineHasNoTimeRemaining() throws InterruptedException {
+
+        Deadline deadline = Deadline.after(0);
+        Thread.sleep(1);
+
+        assertTrue(deadline.isExpired());
+        assertTrue(deadline.remainingMs() == 0);
+    }
+
+    @Test
+    public void testEarliest() {
+
+        Deadline early = Deadline.after(100);
+        Deadline late = Deadline.after(Long.MAX_VALUE);
+
+        assertSame(early, Deadline.earliest(early, late));
+        assertSame(early, Deadline.earliest(late, early));
+        assertSame(early, Deadline.earliest(early, null));
+        assertSame(early, Deadline.earliest(null, early));
+        assertNull(Deadline.earliest(null, null));
+    }
+
+    @Test
+    public void testAttachedScopesNestAndRestore() {
+
+        Deadline outer = Deadline.after(1000);
+        Deadline inner = Deadline.after(100);
+
+        assertNull(Deadline.current());
+
+        Deadline.Scope outerScope = outer.attach();
+
+        try {
+            assertSame(outer, Deadline.current());
+
+            Deadline.Scope innerScope = inner.attach();
+
+            try {
+                assertSame(inner, Deadline.current());
+            }
+            finally {
+                innerScope.close();
+            }
+
+            assertSame(outer, Deadline.current());
+        }
+        finally {
+            outerScope.close();
+        }
+
+        assertNull(Deadline.current());
+    }
+}
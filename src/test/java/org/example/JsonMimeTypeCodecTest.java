@@ -0,0 +1,174 @@
+package org.example;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link JsonMimeTypeCodec} and the generic type support of {@link MimeTypeCodec}.
+ */
+public class JsonMimeTypeCodecTest {
+
+    /**
+     * A type to decode JSON objects to.
+     */
+    public static class Order {
+
+        public int id;
+
+        public String item;
+    }
+
+    @Test
+    public void testDecodeTypeReference() throws IOException {
+
+        JsonMimeTypeCodec codec = new JsonMimeTypeCodec();
+
+        List<Map<String, Integer>> list = codec.decode(bytes("[{\"a\":1},{\"b\":2,\"c\":3}]"),
+                new TypeReference<List<Map<String, Integer>>>() {
+                });
+
+        assertEquals(2, list.size());
+        assertEquals(Integer.valueOf(1), list.get(0).get("a"));
+        assertEquals(Integer.valueOf(3), list.get(1).get("c"));
+    }
+
+    @Test
+    public void testDecodeTypeReferenceOfPojos() throws IOException {
+
+        JsonMimeTypeCodec codec = new JsonMimeTypeCodec();
+
+        List<Order> orders = codec.decode(bytes("[{\"id\":1,\"item\":\"tea\"}]"),
+                new TypeReference<List<Order>>() {
+                });
+
+        assertEquals(1, orders.size());
+        assertEquals("tea", orders.get(0).item);
+    }
+
+    @Test
+    public void testDecodeJavaType() throws IOException {
+
+        JsonMimeTypeCodec codec = new JsonMimeTypeCodec();
+        JavaType type = TypeFactory.defaultInstance().constructCollectionType(List.class, Order.class);
+
+        List<Order> orders = codec.decode(bytes("[{\"id\":7,\"item\":\"coffee\"}]"), type);
+
+        assertEquals(7, orders.get(0).id);
+        assertNull(codec.decode(null, type));
+    }
+
+    @Test
+    public void testEncodeAndDecodeClass() throws IOException {
+
+        JsonMimeTypeCodec codec = new JsonMimeTypeCodec();
+
+        Order order = new Order();
+        order.id = 3;
+        order.item = "milk";
+
+        Order decoded = codec.decode(codec.encode(order), Order.class);
+
+        assertEquals(3, decoded.id);
+        assertEquals("milk", decoded.item);
+    }
+
+    @Test
+    public void testRegisterFillsCache() {
+
+        JsonMimeTypeCodec codec = new JsonMimeTypeCodec();
+        TypeReference<List<Order>> listType = new TypeReference<List<Order>>() {
+        };
+
+        assertFalse(codec.hasReader(Order.class));
+        assertFalse(codec.hasWriter(Order.class));
+        assertFalse(codec.hasReader(listType.getType()));
+
+        codec.register(Order.class).register(listType);
+
+        assertTrue(codec.hasReader(Order.class));
+        assertTrue(codec.hasWriter(Order.class));
+        assertTrue(codec.hasReader(listType.getType()));
+    }
+
+    @Test
+    public void testUnregisteredTypesAreCachedUpToLimit() throws IOException {
+
+        JsonMimeTypeCodec codec = new JsonMimeTypeCodec(new ObjectMapper(), 1);
+
+        codec.encode(new Order());
+        codec.encode(new HashMap<String, Integer>());
+        codec.register(ArrayList.class);
+
+        assertTrue(codec.hasWriter(Order.class));
+        assertFalse(codec.hasWriter(HashMap.class));
+        assertTrue(codec.hasWriter(ArrayList.class));
+
+        // Uncached types are still encoded.
+        assertEquals("{}", new String(codec.encode(new HashMap<String, Integer>()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBaseCodecRejectsGenericTypes() throws IOException {
+
+        MimeTypeCodec codec = new TextMimeTypeCodec();
+
+        // Plain classes are still decoded by the base implementation.
+        assertEquals("text", codec.decode(bytes("text"), (Type) String.class));
+
+        try {
+            codec.decode(bytes("text"), new TypeReference<List<String>>() {
+            });
+            fail("Expected IOException");
+        }
+        catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("TextMimeTypeCodec"));
+        }
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A codec supporting plain strings only, relying on the default generic type handling.
+     */
+    private static class TextMimeTypeCodec extends MimeTypeCodec {
+
+        @Override
+        public byte[] doEncode(Object object) throws IOException {
+            return object.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <T> T doDecode(byte[] bytes, Class<T> type) throws IOException {
+            return type.cast(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public RestClient.MimeType getEncodingMimeType() {
+            return RestClient.MimeType.ALL;
+        }
+
+        @Override
+        public RestClient.MimeType getDecodingMimeType() {
+            return RestClient.MimeType.ALL;
+        }
+    }
+}
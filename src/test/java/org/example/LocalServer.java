@@ -0,0 +1,119 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A minimal local HTTP server for tests, handling each connection on its own daemon thread.
+ */
+class LocalServer implements Closeable {
+
+    /**
+     * Handles a single request.
+     */
+    interface Handler {
+
+        /**
+         * Writes the complete response, including the status line and headers, to the request.
+         *
+         * @param headers
+         *         The request headers, keyed by name.
+         * @param output
+         *         The stream to write the response to.
+         */
+        void handle(Map<String, String> headers, OutputStream output) throws Exception;
+    }
+
+    /**
+     * The server socket.
+     */
+    private final ServerSocket server;
+
+    LocalServer(final Handler handler) throws IOException {
+
+        server = new ServerSocket(0);
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = server.accept();
+
+                        Thread thread = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket, handler);
+                            }
+                        });
+
+                        thread.setDaemon(true);
+                        thread.start();
+                    }
+                }
+                catch (IOException ex) {
+                    // Server closed.
+                }
+            }
+        });
+
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Returns the base URL of the server.
+     *
+     * @return The base URL.
+     */
+    String getUrl() {
+        return "http://localhost:" + server.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Writes the status line and headers of a successful JSON response which ends when the
+     * connection is closed.
+     *
+     * @param output
+     *         The stream to write the response to.
+     */
+    static void writeJsonHeaders(OutputStream output) throws IOException {
+        output.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+
+    private static void serve(Socket socket, Handler handler) {
+        try (Socket closed = socket) {
+
+            // Read the request line and headers, ignoring any body.
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(closed.getInputStream(), StandardCharsets.ISO_8859_1));
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line = reader.readLine();
+
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int separator = line.indexOf(':');
+                headers.put(line.substring(0, separator), line.substring(separator + 1).trim());
+            }
+
+            handler.handle(headers, closed.getOutputStream());
+        }
+        catch (Exception ex) {
+            // Client went away.
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package org.example;
+
+import org.example.RequestScheduler.Permit;
+import org.example.RequestScheduler.Priority;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link RequestScheduler}.
+ */
+public class RequestSchedulerTest {
+
+    /**
+     * The endpoint used by all tests.
+     */
+    private static final String ENDPOINT = "http://localhost";
+
+    /**
+     * The first failure of the tasks started by the current test.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    @Test
+    public void testWeightedOrderWhenBothLanesAreBacklogged() throws Exception {
+
+        final RequestScheduler scheduler = RequestScheduler.builder()
+                .maxInFlightPerEndpoint(1)
+                .lane(Priority.INTERACTIVE, 4, 0)
+                .lane(Priority.BULK, 1, 0)
+                .build();
+
+        // Hold the only slot while both lanes fill up.
+        Permit held = scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null);
+
+        final List<Priority> order = Collections.synchronizedList(new ArrayList<Priority>());
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            for (final Priority priority : Priority.values()) {
+                threads.add(start(new Task() {
+                    @Override
+                    public void run() throws Exception {
+                        Permit permit = scheduler.acquire(ENDPOINT, priority, null);
+
+                        try {
+                            order.add(priority);
+                        }
+                        finally {
+                            permit.close();
+                        }
+                    }
+                }));
+            }
+        }
+
+        awaitQueueDepth(scheduler, Priority.INTERACTIVE, 10);
+        awaitQueueDepth(scheduler, Priority.BULK, 10);
+
+        held.close();
+        join(threads);
+
+        // Every five slots, four go to the interactive lane and one to the bulk lane.
+        List<Priority> expected = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            expected.addAll(Arrays.asList(Priority.INTERACTIVE, Priority.INTERACTIVE,
+                    Priority.BULK, Priority.INTERACTIVE, Priority.INTERACTIVE));
+        }
+
+        assertEquals(expected, order.subList(0, 10));
+    }
+
+    @Test
+    public void testBulkRequestIsShedAfterMaxQueueWait() throws IOException {
+
+        RequestScheduler scheduler = RequestScheduler.builder()
+                .maxInFlightPerEndpoint(1)
+                .lane(Priority.BULK, 1, 100)
+                .build();
+
+        Permit held = scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null);
+        long startNanos = System.nanoTime();
+
+        try {
+            scheduler.acquire(ENDPOINT, Priority.BULK, null);
+            fail("Expected RequestShedException");
+        }
+        catch (RequestShedException ex) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+            assertTrue("Shed after " + elapsedMs + "ms", elapsedMs >= 90);
+        }
+
+        assertEquals(1, scheduler.getShedCount(Priority.BULK));
+        assertEquals(0, scheduler.getQueueDepth(Priority.BULK));
+
+        held.close();
+        assertEquals(0, scheduler.getInFlight(ENDPOINT));
+    }
+
+    @Test
+    public void testDeadlineExpiringWhileQueued() throws IOException {
+
+        RequestScheduler scheduler = RequestScheduler.builder().maxInFlightPerEndpoint(1).build();
+        Permit held = scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null);
+
+        try {
+            scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, Deadline.after(100));
+            fail("Expected DeadlineExceededException");
+        }
+        catch (DeadlineExceededException ex) {
+            // Expected.
+        }
+
+        assertEquals(0, scheduler.getQueueDepth(Priority.INTERACTIVE));
+        assertEquals(0, scheduler.getShedCount(Priority.INTERACTIVE));
+
+        held.close();
+        scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null).close();
+    }
+
+    @Test
+    public void testDeadlineShorterThanLaneWaitIsNotShed() throws IOException {
+
+        RequestScheduler scheduler = RequestScheduler.builder()
+                .maxInFlightPerEndpoint(1)
+                .lane(Priority.BULK, 1, 1000)
+                .build();
+
+        Permit held = scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null);
+
+        try {
+            scheduler.acquire(ENDPOINT, Priority.BULK, Deadline.after(100));
+            fail("Expected DeadlineExceededException");
+        }
+        catch (DeadlineExceededException ex) {
+            // Expected.
+        }
+
+        assertEquals(0, scheduler.getShedCount(Priority.BULK));
+        held.close();
+    }
+
+    @Test
+    public void testInteractiveRequestWithVeryLongDeadlineIsNotShed() throws Exception {
+
+        final RequestScheduler scheduler = RequestScheduler.builder().maxInFlightPerEndpoint(1).build();
+        Permit held = scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null);
+
+        Thread thread = start(new Task() {
+            @Override
+            public void run() throws Exception {
+                scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, Deadline.after(Long.MAX_VALUE)).close();
+            }
+        });
+
+        awaitQueueDepth(scheduler, Priority.INTERACTIVE, 1);
+        Thread.sleep(50);
+        held.close();
+        join(Collections.singletonList(thread));
+
+        assertEquals(0, scheduler.getShedCount(Priority.INTERACTIVE));
+        assertTrue(scheduler.getMaxWaitMs(Priority.INTERACTIVE) >= 50);
+    }
+
+    @Test
+    public void testInterruptedWaiterDoesNotLeakSlot() throws Exception {
+
+        final RequestScheduler scheduler = RequestScheduler.builder().maxInFlightPerEndpoint(1).build();
+
+        // Race an interrupt against a grant many times, so that the waiter is sometimes
+        // interrupted after being granted the slot, and must then give it back.
+        for (int i = 0; i < 200; i++) {
+            Permit held = scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null);
+            final CountDownLatch done = new CountDownLatch(1);
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null).close();
+                    }
+                    catch (InterruptedIOException ex) {
+                        // Interrupted before or after being granted the slot.
+                    }
+                    catch (IOException ex) {
+                        throw new AssertionError(ex);
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            });
+
+            thread.start();
+            awaitQueueDepth(scheduler, Priority.INTERACTIVE, 1);
+
+            thread.interrupt();
+            held.close();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, scheduler.getInFlight(ENDPOINT));
+            assertEquals(0, scheduler.getQueueDepth(Priority.INTERACTIVE));
+        }
+    }
+
+    @Test
+    public void testMaxInFlightIsNeverExceeded() throws Exception {
+
+        final RequestScheduler scheduler = RequestScheduler.builder()
+                .maxInFlightPerEndpoint(3)
+                .lane(Priority.BULK, 1, 0)
+                .build();
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            final Priority priority = i % 3 == 0 ? Priority.INTERACTIVE : Priority.BULK;
+
+            threads.add(start(new Task() {
+                @Override
+                public void run() throws Exception {
+                    for (int j = 0; j < 20; j++) {
+                        Permit permit = scheduler.acquire(ENDPOINT, priority, null);
+
+                        try {
+                            int current = inFlight.incrementAndGet();
+
+                            int max;
+                            while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+                                // Retry.
+                            }
+
+                            Thread.sleep(1);
+                            inFlight.decrementAndGet();
+                        }
+                        finally {
+                            permit.close();
+                        }
+                    }
+                }
+            }));
+        }
+
+        join(threads);
+
+        assertTrue("Max in flight was " + maxInFlight.get(), maxInFlight.get() <= 3);
+        assertEquals(0, scheduler.getInFlight(ENDPOINT));
+        assertEquals(0, scheduler.getQueueDepth(Priority.INTERACTIVE));
+        assertEquals(0, scheduler.getQueueDepth(Priority.BULK));
+    }
+
+    @Test
+    public void testResetWaitTimes() throws IOException {
+
+        RequestScheduler scheduler = RequestScheduler.builder().build();
+        scheduler.acquire(ENDPOINT, Priority.INTERACTIVE, null).close();
+
+        scheduler.resetWaitTimes();
+
+        assertEquals(0, scheduler.getAverageWaitMs(Priority.INTERACTIVE), 0);
+        assertEquals(0, scheduler.getMaxWaitMs(Priority.INTERACTIVE), 0);
+    }
+
+    /**
+     * A task run on its own thread, whose failure fails the test when joined.
+     */
+    private interface Task {
+
+        void run() throws Exception;
+    }
+
+    private Thread start(final Task task) {
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                }
+                catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }
+        });
+
+        thread.start();
+        return thread;
+    }
+
+    private void join(List<Thread> threads) throws Exception {
+
+        for (Thread thread : threads) {
+            thread.join(10000);
+            assertTrue("Thread did not complete", !thread.isAlive());
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private static void awaitQueueDepth(RequestScheduler scheduler, Priority priority, int depth)
+            throws InterruptedException {
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (scheduler.getQueueDepth(priority) < depth) {
+            assertTrue("Queue depth did not reach " + depth, System.nanoTime() < deadlineNanos);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the enforcement of {@link Deadline}s by {@link RestClient} against a local server.
+ */
+public class RestClientDeadlineTest {
+
+    /**
+     * The local server socket.
+     */
+    private ServerSocket server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testTricklingResponseIsAbortedAtDeadline() throws IOException {
+
+        // Send a byte every 50ms for 10s - the read timeout never fires.
+        serve(50, 200);
+
+        SimpleRestClient client = newClient(300);
+        long elapsedMs = readExpectingDeadline(client);
+
+        assertTrue("Aborted after " + elapsedMs + "ms", elapsedMs >= 250 && elapsedMs < 800);
+        assertEquals(1, client.getDeadlineExceededCount());
+        assertEquals(0, client.getFailureCount());
+    }
+
+    @Test
+    public void testStalledResponseIsAbortedByDisconnect() throws IOException {
+
+        // Send a few bytes for 300ms and then stall. The read timeout, bounded by the deadline
+        // when connecting, would only fire 500ms after the last byte, at about 800ms.
+        serve(100, 3);
+
+        SimpleRestClient client = newClient(500);
+        long startNanos = System.nanoTime();
+
+        try {
+            client.read(null, null, Object.class, null);
+            fail("Expected DeadlineExceededException");
+        }
+        catch (DeadlineExceededException ex) {
+            long elapsedMs = (System.nanoTime() - startNanos) / 1000000;
+
+            assertTrue("Aborted after " + elapsedMs + "ms", elapsedMs >= 450 && elapsedMs < 750);
+            assertFalse("Expected an abort, not a read timeout", ex.getCause() instanceof SocketTimeoutException);
+        }
+
+        assertEquals(1, client.getDeadlineExceededCount());
+        assertEquals(0, client.getFailureCount());
+    }
+
+    @Test
+    public void testVeryLongTimeoutDoesNotAbortCalls() throws IOException {
+
+        // Send a complete two element array.
+        serve(10, 1);
+
+        SimpleRestClient client = newClient(Long.MAX_VALUE);
+        List<?> list = client.read(null, null, List.class, null);
+
+        assertEquals(2, list.size());
+        assertEquals(0, client.getDeadlineExceededCount());
+    }
+
+    @Test
+    public void testAttachedDeadlineIsInherited() throws IOException {
+
+        serve(50, 200);
+
+        SimpleRestClient client = newClient(0);
+
+        Deadline.Scope scope = Deadline.after(200).attach();
+
+        try {
+            long elapsedMs = readExpectingDeadline(client);
+
+            assertTrue("Aborted after " + elapsedMs + "ms", elapsedMs >= 150 && elapsedMs < 700);
+        }
+        finally {
+            scope.close();
+        }
+
+        assertEquals(1, client.getDeadlineExceededCount());
+    }
+
+    @Test
+    public void testServerErrorIsCountedAsFailure() throws Exception {
+
+        // Reply with an error well within the deadline.
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try (Socket socket = server.accept()) {
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                    String line;
+
+                    while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                        // Ignore.
+                    }
+
+                    Thread.sleep(150);
+                    socket.getOutputStream().write(("HTTP/1.1 500 Internal Server Error\r\n"
+                            + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                }
+                catch (IOException | InterruptedException ex) {
+                    // Client went away.
+                }
+            }
+        });
+
+        thread.setDaemon(true);
+        thread.start();
+
+        SimpleRestClient client = newClient(1000);
+
+        try {
+            client.read(null, null, Object.class, null);
+            fail("Expected IOException");
+        }
+        catch (DeadlineExceededException ex) {
+            fail("Server error reported as deadline exceeded");
+        }
+        catch (IOException ex) {
+            // Expected.
+        }
+
+        assertEquals(0, client.getDeadlineExceededCount());
+        assertEquals(1, client.getFailureCount());
+    }
+
+    private SimpleRestClient newClient(long requestTimeoutMs) {
+        return SimpleRestClient.builder("http://localhost:" + server.getLocalPort())
+                .connectionTimeoutMs(5000)
+                .readTimeoutMs(5000)
+                .requestTimeoutMs(requestTimeoutMs)
+                .build();
+    }
+
+    private long readExpectingDeadline(SimpleRestClient client) throws IOException {
+
+        long startNanos = System.nanoTime();
+
+        try {
+            client.read(null, null, Object.class, null);
+            fail("Expected DeadlineExceededException");
+        }
+        catch (DeadlineExceededException ex) {
+            // Expected.
+        }
+
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    /**
+     * Serves a single JSON array response, sending one element every {@code intervalMs} for
+     * {@code elements} times after the headers, then stalling for 10s unless the whole array
+     * was sent.
+     */
+    private void serve(final long intervalMs, final int elements) {
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try (Socket socket = server.accept()) {
+
+                    // Consume the request headers.
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                    String line;
+
+                    while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                        // Ignore.
+                    }
+
+                    OutputStream output = socket.getOutputStream();
+                    output.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n"
+                            + "Connection: close\r\n\r\n[0").getBytes(StandardCharsets.US_ASCII));
+                    output.flush();
+
+                    for (int i = 0; i < elements; i++) {
+                        Thread.sleep(intervalMs);
+                        output.write(",1".getBytes(StandardCharsets.US_ASCII));
+                        output.flush();
+                    }
+
+                    if (elements > 1) {
+                        Thread.sleep(10000);
+                    }
+
+                    output.write("]".getBytes(StandardCharsets.US_ASCII));
+                    output.flush();
+                }
+                catch (IOException | InterruptedException ex) {
+                    // Client went away.
+                }
+            }
+        });
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
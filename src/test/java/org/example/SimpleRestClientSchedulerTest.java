@@ -0,0 +1,177 @@
+package org.example;
+
+import org.example.RequestScheduler.Priority;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link SimpleRestClient} requests going through a {@link RequestScheduler} against a
+ * local server.
+ */
+public class SimpleRestClientSchedulerTest {
+
+    /**
+     * The request identifiers in the order the server received them.
+     */
+    private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * Holds all responses until opened.
+     */
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    /**
+     * The first failure of the calls made on other threads.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * The local server recording each request and responding once the gate is opened.
+     */
+    private LocalServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalServer(new LocalServer.Handler() {
+            @Override
+            public void handle(Map<String, String> headers, OutputStream output) throws Exception {
+                received.add(headers.get("X-Id"));
+                gate.await(10, TimeUnit.SECONDS);
+
+                LocalServer.writeJsonHeaders(output);
+                output.write("{}".getBytes(StandardCharsets.US_ASCII));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        gate.countDown();
+        server.close();
+    }
+
+    @Test
+    public void testInteractiveCallGetsAheadOfQueuedBulkCalls() throws Exception {
+
+        RequestScheduler scheduler = RequestScheduler.builder()
+                .maxInFlightPerEndpoint(1)
+                .lane(Priority.BULK, 1, 0)
+                .build();
+
+        SimpleRestClient client = SimpleRestClient.builder(server.getUrl()).scheduler(scheduler).build();
+
+        // Occupy the only slot, then queue bulk calls ahead of an interactive one.
+        List<Thread> threads = new ArrayList<>();
+        threads.add(read(client, "bulk0", Priority.BULK));
+        awaitReceived(1);
+
+        for (int i = 1; i <= 3; i++) {
+            threads.add(read(client, "bulk" + i, Priority.BULK));
+        }
+
+        awaitQueueDepth(scheduler, Priority.BULK, 3);
+
+        threads.add(read(client, "interactive", Priority.INTERACTIVE));
+        awaitQueueDepth(scheduler, Priority.INTERACTIVE, 1);
+
+        gate.countDown();
+
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        assertEquals(Arrays.asList("bulk0", "interactive"), received.subList(0, 2));
+        assertEquals(5, received.size());
+        assertEquals(0, client.getFailureCount());
+    }
+
+    @Test
+    public void testShedCallIsCountedAsFailure() throws Exception {
+
+        RequestScheduler scheduler = RequestScheduler.builder()
+                .maxInFlightPerEndpoint(1)
+                .lane(Priority.BULK, 1, 100)
+                .build();
+
+        SimpleRestClient client = SimpleRestClient.builder(server.getUrl()).scheduler(scheduler).build();
+
+        Thread blocker = read(client, "interactive", Priority.INTERACTIVE);
+        awaitReceived(1);
+
+        try {
+            client.read(null, null, Map.class, Collections.singletonMap("X-Id", "bulk"), null, Priority.BULK);
+            fail("Expected RequestShedException");
+        }
+        catch (RequestShedException ex) {
+            // Expected.
+        }
+
+        gate.countDown();
+        blocker.join(10000);
+
+        assertEquals(1, scheduler.getShedCount(Priority.BULK));
+        assertEquals(1, client.getFailureCount());
+        assertEquals(0, client.getDeadlineExceededCount());
+        assertEquals(Collections.singletonList("interactive"), received);
+    }
+
+    private Thread read(final SimpleRestClient client, final String id, final Priority priority) {
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    client.read(null, null, Map.class, Collections.singletonMap("X-Id", id), null, priority);
+                }
+                catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }
+        });
+
+        thread.start();
+        return thread;
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (received.size() < count) {
+            assertTrue("Server did not receive " + count + " requests", System.nanoTime() < deadlineNanos);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitQueueDepth(RequestScheduler scheduler, Priority priority, int depth)
+            throws InterruptedException {
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (scheduler.getQueueDepth(priority) < depth) {
+            assertTrue("Queue depth did not reach " + depth, System.nanoTime() < deadlineNanos);
+            Thread.sleep(1);
+        }
+    }
+}
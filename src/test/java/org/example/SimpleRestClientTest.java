@@ -0,0 +1,136 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the headers sent by {@link SimpleRestClient} against a local server echoing them back.
+ */
+public class SimpleRestClientTest {
+
+    /**
+     * The local server echoing the request headers as a JSON object.
+     */
+    private LocalServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalServer(new LocalServer.Handler() {
+            @Override
+            public void handle(Map<String, String> headers, OutputStream output) throws Exception {
+                LocalServer.writeJsonHeaders(output);
+                output.write(new ObjectMapper().writeValueAsBytes(headers));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testBuilderSendsConstantHeaders() throws IOException {
+
+        SimpleRestClient client = SimpleRestClient.builder(server.getUrl())
+                .credentials(new BasicAuthCredentials("duncan", "attard"))
+                .header("X-Client", "test")
+                .build();
+
+        Map<?, ?> headers = client.read(null, null, Map.class, null);
+
+        assertEquals("Basic ZHVuY2FuOmF0dGFyZA==", headers.get("Authorization"));
+        assertEquals("test", headers.get("X-Client"));
+    }
+
+    @Test
+    public void testRequestPropertiesOverrideConstantHeaders() throws IOException {
+
+        SimpleRestClient client = SimpleRestClient.builder(server.getUrl())
+                .header("X-Client", "test")
+                .build();
+
+        Map<?, ?> headers = client.read(null, null, Map.class, Collections.singletonMap("X-Client", "override"));
+
+        assertEquals("override", headers.get("X-Client"));
+    }
+
+    @Test
+    public void testReadJavaType() throws IOException {
+
+        SimpleRestClient client = SimpleRestClient.builder(server.getUrl())
+                .header("X-Client", "test")
+                .build();
+
+        JavaType type = TypeFactory.defaultInstance().constructMapType(TreeMap.class, String.class, String.class);
+        Map<String, String> headers = client.read(null, null, type, null);
+
+        assertTrue(headers instanceof TreeMap);
+        assertEquals("test", headers.get("X-Client"));
+    }
+
+    @Test
+    public void testRefreshableCredentialsAreReadOnEveryRequest() throws Exception {
+
+        final AtomicInteger fetches = new AtomicInteger();
+
+        try (RefreshableAuthCredentials credentials = new BearerAuthCredentials(new Callable<String>() {
+            @Override
+            public String call() {
+                return "token" + fetches.incrementAndGet();
+            }
+        }, 20).start()) {
+
+            SimpleRestClient client = SimpleRestClient.builder(server.getUrl()).credentials(credentials).build();
+
+            assertEquals(credentials.getAuthToken(), client.read(null, null, Map.class, null).get("Authorization"));
+
+            // Wait for the token to be refreshed in the background.
+            int fetched = fetches.get();
+
+            while (fetches.get() < fetched + 2) {
+                Thread.sleep(5);
+            }
+
+            assertEquals(credentials.getAuthToken(), client.read(null, null, Map.class, null).get("Authorization"));
+        }
+    }
+
+    @Test
+    public void testUnstartedRefreshableCredentialsAreRejected() {
+
+        BearerAuthCredentials credentials = new BearerAuthCredentials(new Callable<String>() {
+            @Override
+            public String call() {
+                return "token";
+            }
+        }, 1000);
+
+        try {
+            SimpleRestClient.builder(server.getUrl()).credentials(credentials).build();
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+        finally {
+            credentials.close();
+        }
+    }
+}